@@ -0,0 +1,141 @@
+package be.nikiroo.tests.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import be.nikiroo.utils.streams.BufferedInputStream;
+
+/**
+ * Throughput benchmark of {@link BufferedInputStream} against
+ * {@link java.io.BufferedInputStream}, for several read sizes.
+ * <p>
+ * This is not a test: it only prints the MB/s for each class and read size.
+ * Both classes are warmed up before anything is timed, and the order in which
+ * they are timed alternates from one read size to the next.
+ * <p>
+ * Run it with <tt>make bench</tt> (which also compiles it into
+ * <tt>bin/</tt>), or by hand afterwards with <tt>java -cp bin
+ * be.nikiroo.tests.utils.BufferedInputStreamBench</tt>.
+ *
+ * @author niki
+ */
+public class BufferedInputStreamBench {
+	static private final int SIZE = 64 * 1024 * 1024;
+	static private final int[] READ_SIZES = new int[] { 1, 512, 8192,
+			64 * 1024, 1024 * 1024 };
+	static private final int WARMUP = 2;
+	static private final int RUNS = 5;
+
+	/**
+	 * Run the benchmark and print the results on stdout.
+	 *
+	 * @param args
+	 *            not used
+	 *
+	 * @throws IOException
+	 *             in case of I/O error (should not happen)
+	 */
+	static public void main(String[] args) throws IOException {
+		byte[] data = BufferedInputStreamTest.getData(0, SIZE);
+
+		for (int run = 0; run < WARMUP; run++) {
+			for (int readSize : READ_SIZES) {
+				read(data, readSize, false);
+				read(data, readSize, true);
+			}
+		}
+
+		for (int i = 0; i < READ_SIZES.length; i++) {
+			int readSize = READ_SIZES[i];
+			double java;
+			double niki;
+			if (i % 2 == 0) {
+				java = bench(data, readSize, false);
+				niki = bench(data, readSize, true);
+			} else {
+				niki = bench(data, readSize, true);
+				java = bench(data, readSize, false);
+			}
+
+			System.out.println(String.format(
+					"read(%7d): java.io: %8.1f MB/s, nikiroo: %8.1f MB/s",
+					readSize, java, niki));
+		}
+	}
+
+	/**
+	 * Read the whole data with the given read size, and return the best
+	 * throughput of {@link BufferedInputStreamBench#RUNS} runs.
+	 *
+	 * @param data
+	 *            the data to read
+	 * @param readSize
+	 *            the size of the byte array passed to each read (1 means
+	 *            {@link InputStream#read()})
+	 * @param niki
+	 *            TRUE to use {@link BufferedInputStream}, FALSE to use
+	 *            {@link java.io.BufferedInputStream}
+	 *
+	 * @return the throughput in MB/s
+	 *
+	 * @throws IOException
+	 *             in case of I/O error (should not happen)
+	 */
+	static private double bench(byte[] data, int readSize, boolean niki)
+			throws IOException {
+		long best = Long.MAX_VALUE;
+		for (int run = 0; run < RUNS; run++) {
+			best = Math.min(best, read(data, readSize, niki));
+		}
+
+		return (data.length / 1024.0 / 1024.0) / (Math.max(1, best) / 1e9);
+	}
+
+	/**
+	 * Read the whole data once with the given read size.
+	 *
+	 * @param data
+	 *            the data to read
+	 * @param readSize
+	 *            the size of the byte array passed to each read (1 means
+	 *            {@link InputStream#read()})
+	 * @param niki
+	 *            TRUE to use {@link BufferedInputStream}, FALSE to use
+	 *            {@link java.io.BufferedInputStream}
+	 *
+	 * @return the time it took, in nanoseconds
+	 *
+	 * @throws IOException
+	 *             in case of I/O error, or if not all the data was read
+	 */
+	static private long read(byte[] data, int readSize, boolean niki)
+			throws IOException {
+		byte[] buf = new byte[readSize];
+		InputStream in = niki ? new BufferedInputStream(
+				new ByteArrayInputStream(data))
+				: new java.io.BufferedInputStream(new ByteArrayInputStream(
+						data));
+
+		long start = System.nanoTime();
+		long total = 0;
+		if (readSize == 1) {
+			while (in.read() >= 0) {
+				total++;
+			}
+		} else {
+			for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+				total += n;
+			}
+		}
+		long time = System.nanoTime() - start;
+		in.close();
+
+		if (total != data.length) {
+			throw new IOException("Read " + total + " bytes instead of "
+					+ data.length);
+		}
+
+		return time;
+	}
+}
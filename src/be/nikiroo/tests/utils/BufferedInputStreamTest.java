@@ -99,11 +99,87 @@ class BufferedInputStreamTest extends TestLauncher {
 				in.close();
 			}
 		});
+
+		addTest(new TestCase("Big and small reads") {
+			@Override
+			public void test() throws Exception {
+				byte[] data = getData(0, 100000);
+
+				BufferedInputStream in = new BufferedInputStream(
+						new ByteArrayInputStream(data));
+
+				byte[] actual = new byte[data.length + 10];
+				int pos = 10; // also test a non-zero offset
+
+				actual[pos++] = (byte) in.read();
+				pos += readFully(in, actual, pos, 3);
+
+				// bigger than the internal buffer
+				pos += readFully(in, actual, pos, 50000);
+
+				byte[] next = new byte[4];
+				System.arraycopy(data, pos - 10, next, 0, next.length);
+				assertEquals("startsWith() must still work after a big read",
+						true, in.startsWith(next));
+
+				pos += readFully(in, actual, pos, 1);
+				pos += readFully(in, actual, pos, actual.length - pos);
+
+				assertEquals("The stream should now be empty", -1, in.read());
+				in.close();
+
+				for (int i = 0; i < data.length; i++) {
+					assertEquals("Item " + i + " (0-based) is not the same",
+							data[i], actual[i + 10]);
+				}
+			}
+		});
+	}
+
+	static int readFully(InputStream in, byte[] buf, int off, int len)
+			throws Exception {
+		int done = 0;
+		while (done < len) {
+			int n = in.read(buf, off + done, len - done);
+			if (n < 0) {
+				break;
+			}
+			done += n;
+		}
+
+		return done;
+	}
+
+	/**
+	 * Some test data: a simple sequence of bytes (modulo 251, so it does not
+	 * align with the usual buffer sizes).
+	 * 
+	 * @param seed
+	 *            the value of the first byte
+	 * @param size
+	 *            the size of the data in bytes
+	 * 
+	 * @return the data, always the same for the same seed and size
+	 */
+	static byte[] getData(int seed, int size) {
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) ((seed + i) % 251);
+		}
+
+		return data;
 	}
 
 	static void checkArrays(TestCase test, String prefix, InputStream in,
 			byte[] expected) throws Exception {
-		byte[] actual = IOUtils.toByteArray(in);
+		test.assertNotNull("The " + prefix + " stream is NULL", in);
+		byte[] actual;
+		try {
+			actual = IOUtils.toByteArray(in);
+		} finally {
+			in.close();
+		}
+
 		test.assertEquals("The " + prefix
 				+ " resulting array has not the correct number of items",
 				expected.length, actual.length);
@@ -101,6 +101,38 @@ class BufferedOutputStreamTest extends TestLauncher {
 				checkArrays(this, "FIRST", bout, abytes);
 			}
 		});
+
+		addTest(new TestCase("Big and small writes mixed") {
+			@Override
+			public void test() throws Exception {
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				BufferedOutputStream out = new BufferedOutputStream(bout);
+
+				byte[] data = BufferedInputStreamTest.getData(0, 200000);
+
+				// small, big (bigger than the buffer), single bytes, big
+				// again from an offset, then the rest in small chunks
+				int pos = 0;
+				out.write(data, pos, 10);
+				pos += 10;
+				out.write(data, pos, 70000);
+				pos += 70000;
+				for (int i = 0; i < 3; i++) {
+					out.write(data[pos++]);
+				}
+				out.write(data, pos, 100000);
+				pos += 100000;
+				while (pos < data.length) {
+					int len = Math.min(13, data.length - pos);
+					out.write(data, pos, len);
+					pos += len;
+				}
+
+				out.close();
+
+				checkArrays(this, "FIRST", bout, data);
+			}
+		});
 	}
 
 	static void checkArrays(TestCase test, String prefix,
@@ -0,0 +1,145 @@
+package be.nikiroo.tests.utils;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+
+import be.nikiroo.utils.Cache;
+import be.nikiroo.utils.CacheMemory;
+import be.nikiroo.utils.TempFiles;
+import be.nikiroo.utils.test.TestCase;
+import be.nikiroo.utils.test.TestLauncher;
+
+class CacheTest extends TestLauncher {
+	public CacheTest(String[] args) {
+		super("Cache test", args);
+
+		addSeries(new CacheTest(args, false));
+		addSeries(new CacheTest(args, true));
+	}
+
+	private CacheTest(String[] args, final boolean memory) {
+		super(memory ? "CacheMemory" : "Cache", args);
+
+		addTest(new TestCase("Save and load an URL") {
+			@Override
+			public void test() throws Exception {
+				TempFiles tmp = new TempFiles("cache-test");
+				try {
+					Cache cache = createCache(tmp, memory);
+					URL url = new URL("http://example.com/data?id=1");
+					byte[] data = BufferedInputStreamTest.getData(1, 4096);
+
+					assertEquals("The URL should not be cached yet", false,
+							cache.check(url, false, false));
+
+					cache.save(new ByteArrayInputStream(data), url);
+					assertEquals("The URL should now be cached", true,
+							cache.check(url, false, false));
+
+					BufferedInputStreamTest.checkArrays(this, "LOAD",
+							cache.load(url, false, false), data);
+				} finally {
+					tmp.close();
+				}
+			}
+		});
+
+		addTest(new TestCase("Save and load an ID") {
+			@Override
+			public void test() throws Exception {
+				TempFiles tmp = new TempFiles("cache-test");
+				try {
+					Cache cache = createCache(tmp, memory);
+					byte[] data = BufferedInputStreamTest.getData(2, 4096);
+
+					cache.save(new ByteArrayInputStream(data), "my-id");
+					assertEquals("The ID should now be cached", true,
+							cache.check("my-id", false, false));
+
+					BufferedInputStreamTest.checkArrays(this, "LOAD",
+							cache.load("my-id", false, false), data);
+				} finally {
+					tmp.close();
+				}
+			}
+		});
+
+		addTest(new TestCase("Load unknown entries") {
+			@Override
+			public void test() throws Exception {
+				TempFiles tmp = new TempFiles("cache-test");
+				try {
+					Cache cache = createCache(tmp, memory);
+
+					assertEquals("An unknown URL cannot be loaded", null, cache
+							.load(new URL("http://example.com/unknown"), true,
+									true));
+					assertEquals("An unknown ID cannot be loaded", null,
+							cache.load("unknown", true, true));
+				} finally {
+					tmp.close();
+				}
+			}
+		});
+
+		addTest(new TestCase("Overwrite an entry") {
+			@Override
+			public void test() throws Exception {
+				TempFiles tmp = new TempFiles("cache-test");
+				try {
+					Cache cache = createCache(tmp, memory);
+					URL url = new URL("http://example.com/data?id=2");
+					byte[] data1 = BufferedInputStreamTest.getData(3, 100);
+					byte[] data2 = BufferedInputStreamTest.getData(4, 5000);
+
+					cache.save(new ByteArrayInputStream(data1), url);
+					cache.save(new ByteArrayInputStream(data2), url);
+
+					BufferedInputStreamTest.checkArrays(this, "LOAD",
+							cache.load(url, false, false), data2);
+				} finally {
+					tmp.close();
+				}
+			}
+		});
+
+		addTest(new TestCase("Remove and clean") {
+			@Override
+			public void test() throws Exception {
+				TempFiles tmp = new TempFiles("cache-test");
+				try {
+					Cache cache = createCache(tmp, memory);
+					URL url1 = new URL("http://example.com/data?id=3");
+					URL url2 = new URL("http://example.com/data?id=4");
+
+					cache.save(new ByteArrayInputStream(new byte[] { 42 }),
+							url1);
+					cache.save(new ByteArrayInputStream(new byte[] { 12 }),
+							url2);
+
+					assertEquals("The URL should have been removed", true,
+							cache.remove(url1));
+					assertEquals("The URL should not be cached anymore", false,
+							cache.check(url1, true, false));
+					assertEquals("The other URL should still be cached", true,
+							cache.check(url2, false, false));
+
+					cache.clean(false);
+					assertEquals("The cache should be empty after a clean",
+							false, cache.check(url2, true, false));
+				} finally {
+					tmp.close();
+				}
+			}
+		});
+	}
+
+	static private Cache createCache(TempFiles tmp, boolean memory)
+			throws Exception {
+		if (memory) {
+			return new CacheMemory();
+		}
+
+		return new Cache(tmp.createTempDir("cache"), 10, 100);
+	}
+}
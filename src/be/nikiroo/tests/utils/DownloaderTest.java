@@ -0,0 +1,232 @@
+package be.nikiroo.tests.utils;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import be.nikiroo.utils.Cache;
+import be.nikiroo.utils.CacheMemory;
+import be.nikiroo.utils.Downloader;
+import be.nikiroo.utils.TempFiles;
+import be.nikiroo.utils.test.TestCase;
+import be.nikiroo.utils.test.TestLauncher;
+
+class DownloaderTest extends TestLauncher {
+	static private final String UA = "nikiroo-utils tests";
+
+	public DownloaderTest(String[] args) {
+		super("Downloader test", args);
+
+		addTest(new TestCase("Test server ETag and 304") {
+			@Override
+			public void test() throws Exception {
+				TestHttpServer server = new TestHttpServer();
+				try {
+					URL url = server.getUrl("/data/tagged?size=100&etag=v1");
+
+					HttpURLConnection conn = (HttpURLConnection) url
+							.openConnection();
+					BufferedInputStreamTest.checkArrays(this, "FIRST",
+							conn.getInputStream(),
+							TestHttpServer.getData("tagged", 100));
+					assertEquals("The ETag was not sent", "v1",
+							conn.getHeaderField("ETag"));
+
+					conn = (HttpURLConnection) url.openConnection();
+					conn.setRequestProperty("If-None-Match", "v1");
+					assertEquals("A matching ETag should get a 304", 304,
+							conn.getResponseCode());
+					conn.disconnect();
+
+					conn = (HttpURLConnection) url.openConnection();
+					conn.setRequestProperty("If-None-Match", "v0");
+					assertEquals("An old ETag should get a 200", 200,
+							conn.getResponseCode());
+					conn.getInputStream().close();
+
+					assertEquals("Only one 304 should have been sent", 1,
+							server.getNotModified());
+					assertEquals("The data should have been sent twice", 2,
+							server.getHits());
+				} finally {
+					server.stop();
+				}
+			}
+		});
+
+		addTest(new TestCase("Simple download") {
+			@Override
+			public void test() throws Exception {
+				TestHttpServer server = new TestHttpServer();
+				try {
+					Downloader downloader = new Downloader(UA);
+
+					checkDownload(this, "FIRST", downloader,
+							server.getUrl("simple", 5000, 0), "simple", 5000);
+					assertEquals("The server should have been hit once", 1,
+							server.getHits());
+				} finally {
+					server.stop();
+				}
+			}
+		});
+
+		addTest(new TestCase("Download with a redirect") {
+			@Override
+			public void test() throws Exception {
+				TestHttpServer server = new TestHttpServer();
+				try {
+					Downloader downloader = new Downloader(UA);
+
+					checkDownload(this, "REDIRECTED", downloader,
+							server.getUrl("/redirect/moved?size=100"), "moved",
+							100);
+					assertEquals("The redirect was not used", 1,
+							server.getRedirects());
+					assertEquals("The target was not hit", 1, server.getHits());
+				} finally {
+					server.stop();
+				}
+			}
+		});
+
+		addTest(new TestCase("Download with a CacheMemory") {
+			@Override
+			public void test() throws Exception {
+				TestHttpServer server = new TestHttpServer();
+				try {
+					Downloader downloader = new Downloader(UA,
+							new CacheMemory());
+					URL url = server.getUrl("mem", 2000, 0);
+
+					checkDownload(this, "FIRST", downloader, url, "mem", 2000);
+					checkDownload(this, "CACHED", downloader, url, "mem", 2000);
+					assertEquals(
+							"The second download should have come from the cache",
+							1, server.getHits());
+				} finally {
+					server.stop();
+				}
+			}
+		});
+
+		addTest(new TestCase("Download with a Cache") {
+			@Override
+			public void test() throws Exception {
+				TestHttpServer server = new TestHttpServer();
+				TempFiles tmp = new TempFiles("downloader-test");
+				try {
+					Downloader downloader = new Downloader(UA, new Cache(
+							tmp.createTempDir("cache"), 10, 100));
+					URL url = server.getUrl("disk", 2000, 0);
+
+					checkDownload(this, "FIRST", downloader, url, "disk", 2000);
+					checkDownload(this, "CACHED", downloader, url, "disk", 2000);
+					assertEquals(
+							"The second download should have come from the cache",
+							1, server.getHits());
+
+					downloader.setOffline(true);
+					checkDownload(this, "OFFLINE", downloader, url, "disk",
+							2000);
+					assertEquals(
+							"The offline download should have come from the cache",
+							1, server.getHits());
+				} finally {
+					tmp.close();
+					server.stop();
+				}
+			}
+		});
+
+		addTest(new TestCase("Concurrent clients sharing a Cache") {
+			@Override
+			public void test() throws Exception {
+				final int clients = 8;
+				final int urls = 16;
+				final int size = 32 * 1024;
+				final int latency = 20;
+
+				final TestHttpServer server = new TestHttpServer();
+				TempFiles tmp = new TempFiles("downloader-test");
+				try {
+					final Cache cache = new Cache(tmp.createTempDir("cache"),
+							10, 100);
+					final TestCase test = this;
+					final Exception[] err = new Exception[1];
+					long[] times = new long[2];
+
+					for (int round = 0; round < 2; round++) {
+						Thread[] threads = new Thread[clients];
+						for (int i = 0; i < clients; i++) {
+							final int client = i;
+							threads[i] = new Thread(new Runnable() {
+								@Override
+								public void run() {
+									Downloader downloader = new Downloader(UA,
+											cache);
+									try {
+										// Each client has its own URLs: the
+										// current Cache does not lock entries,
+										// so clients racing on the same URL
+										// need single-flight downloads first
+										for (int j = 0; j < urls; j++) {
+											String id = "c" + client + "-" + j;
+											checkDownload(test, id, downloader,
+													server.getUrl(id, size,
+															latency), id, size);
+										}
+									} catch (Exception e) {
+										synchronized (err) {
+											err[0] = e;
+										}
+									}
+								}
+							});
+						}
+
+						long start = System.currentTimeMillis();
+						for (Thread thread : threads) {
+							thread.start();
+						}
+						for (Thread thread : threads) {
+							thread.join();
+						}
+						times[round] = System.currentTimeMillis() - start;
+
+						if (err[0] != null) {
+							fail("An exception was thrown: "
+									+ err[0].getMessage(), err[0]);
+						}
+					}
+
+					int hits = server.getHits();
+					assertEquals(
+							"Each URL should have been downloaded only once",
+							clients * urls, hits);
+
+					// Throughput report only: timings are too unstable to test
+					long bytes = (long) clients * urls * size;
+					for (int round = 0; round < 2; round++) {
+						System.out.println(String.format(
+								"%s: round %d: %d ms, %.1f MB/s", getName(),
+								round + 1, times[round], bytes / 1024.0
+										/ 1024.0 / Math.max(1, times[round])
+										* 1000));
+					}
+				} finally {
+					tmp.close();
+					server.stop();
+				}
+			}
+		});
+	}
+
+	static void checkDownload(TestCase test, String prefix,
+			Downloader downloader, URL url, String id, int size)
+			throws Exception {
+		InputStream in = downloader.open(url);
+		BufferedInputStreamTest.checkArrays(test, prefix, in,
+				TestHttpServer.getData(id, size));
+	}
+}
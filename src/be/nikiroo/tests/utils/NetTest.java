@@ -0,0 +1,39 @@
+package be.nikiroo.tests.utils;
+
+import be.nikiroo.utils.test.TestLauncher;
+
+/**
+ * Tests for the {@link be.nikiroo.utils.Cache} and the
+ * {@link be.nikiroo.utils.Downloader} of nikiroo-utils, on a local
+ * {@link TestHttpServer}.
+ * <p>
+ * They are not part of {@link Test} because they need NanoHTTPD, which is not
+ * included in the jar.
+ * 
+ * @author niki
+ */
+public class NetTest extends TestLauncher {
+	/**
+	 * Start the tests.
+	 * 
+	 * @param args
+	 *            the arguments (which are passed as-is to the other test
+	 *            classes)
+	 */
+	public NetTest(String[] args) {
+		super("Nikiroo-utils (cache and downloader)", args);
+
+		addSeries(new CacheTest(args));
+		addSeries(new DownloaderTest(args));
+	}
+
+	/**
+	 * Main entry point of the program.
+	 * 
+	 * @param args
+	 *            the arguments passed to the {@link TestLauncher}s.
+	 */
+	static public void main(String[] args) {
+		System.exit(new NetTest(args).launch());
+	}
+}
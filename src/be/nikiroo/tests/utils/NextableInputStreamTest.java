@@ -1,8 +1,17 @@
 package be.nikiroo.tests.utils;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import be.nikiroo.utils.IOUtils;
+import be.nikiroo.utils.TempFiles;
+import be.nikiroo.utils.streams.MarkableFileInputStream;
 import be.nikiroo.utils.streams.NextableInputStream;
 import be.nikiroo.utils.streams.NextableInputStreamStep;
 import be.nikiroo.utils.test.TestCase;
@@ -311,6 +320,182 @@ public class NextableInputStreamTest extends TestLauncher {
 				checkNextAll(this, "Line 2 SECOND", in, d2.getBytes("UTF-8"));
 			}
 		});
+
+		addTest(new TestCase("Many lines of all sizes") {
+			@Override
+			public void test() throws Exception {
+				// Bytes close to the separator or with the high bit set, so
+				// word-at-a-time scanning cannot get false positives
+				byte[] filler = new byte[] { 0, (byte) 0x80, (byte) 0xFF,
+						'\n' - 1, '\n' + 1, (byte) ('\n' | 0x80), 127, 'a' };
+
+				List<byte[]> lines = new ArrayList<byte[]>();
+				for (int size = 1; size <= 40; size++) {
+					lines.add(getLine(filler, size));
+				}
+				for (int i = 0; i < 3; i++) {
+					lines.add(getLine(filler, 5000 + i));
+				}
+				for (int size = 1; size <= 9; size++) {
+					lines.add(getLine(filler, size));
+				}
+
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				for (int i = 0; i < lines.size(); i++) {
+					if (i > 0) {
+						bout.write('\n');
+					}
+					bout.write(lines.get(i));
+				}
+
+				NextableInputStream in = new NextableInputStream(
+						new ByteArrayInputStream(bout.toByteArray()),
+						new NextableInputStreamStep('\n'));
+
+				for (int i = 0; i < lines.size(); i++) {
+					checkNext(this, "LINE " + i, in, lines.get(i));
+				}
+				assertEquals("The stream still has some data", false, in.next());
+
+				in.close();
+			}
+		});
+
+		for (final boolean markable : new boolean[] { false, true }) {
+			final String source = markable ? "MarkableFileInputStream"
+					: "FileInputStream";
+
+			addTest(new TestCase("Skip big items from a " + source) {
+				@Override
+				public void test() throws Exception {
+					TempFiles tmp = new TempFiles("nextable-test");
+					try {
+						NextableInputStream in = new NextableInputStream(
+								openItems(tmp, markable),
+								new NextableInputStreamStep('\n'));
+						try {
+							in.next();
+							checkSkip(this, "BIG 1", in, BIG1.length);
+							assertEquals("The BIG 1 item should now be spent",
+									-1, in.read());
+							checkNext(this, "SECOND", in,
+									"second".getBytes("UTF-8"));
+							in.next();
+							checkSkip(this, "BIG 2", in, BIG2.length);
+							assertEquals("The BIG 2 item should now be spent",
+									-1, in.read());
+							checkNext(this, "LAST", in,
+									"last".getBytes("UTF-8"));
+							assertEquals("The stream still has some data",
+									false, in.next());
+						} finally {
+							in.close();
+						}
+					} finally {
+						tmp.close();
+					}
+				}
+			});
+
+			addTest(new TestCase("Skip nextAll() from a " + source) {
+				@Override
+				public void test() throws Exception {
+					TempFiles tmp = new TempFiles("nextable-test");
+					try {
+						NextableInputStream in = new NextableInputStream(
+								openItems(tmp, markable),
+								new NextableInputStreamStep('\n'));
+						try {
+							assertEquals("Cannot get all the items", true,
+									in.nextAll());
+							checkSkip(this, "ALL BUT LAST", in, BIG1.length
+									+ "\nsecond\n".length() + BIG2.length
+									+ "\n".length());
+							checkArrays(this, "LAST", in,
+									"last".getBytes("UTF-8"));
+						} finally {
+							in.close();
+						}
+					} finally {
+						tmp.close();
+					}
+				}
+			});
+		}
+	}
+
+	static private final byte[] BIG1 = getBigItem('a', 1024 * 1024);
+	static private final byte[] BIG2 = getBigItem('A', 300 * 1024);
+
+	static private byte[] getBigItem(char first, int size) {
+		byte[] item = new byte[size];
+		for (int i = 0; i < size; i++) {
+			item[i] = (byte) (first + (i % 26));
+		}
+
+		return item;
+	}
+
+	/**
+	 * Write BIG1, "second", BIG2 and "last" separated by '\n' in a temporary
+	 * file, and open it.
+	 * 
+	 * @param tmp
+	 *            the {@link TempFiles} to create the file in
+	 * @param markable
+	 *            TRUE to open it as a {@link MarkableFileInputStream}, FALSE
+	 *            as a simple {@link FileInputStream}
+	 * 
+	 * @return the opened file
+	 * 
+	 * @throws Exception
+	 *             in case of I/O error
+	 */
+	static private InputStream openItems(TempFiles tmp, boolean markable)
+			throws Exception {
+		File file = tmp.createTempFile("items");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(BIG1);
+			out.write('\n');
+			out.write("second".getBytes("UTF-8"));
+			out.write('\n');
+			out.write(BIG2);
+			out.write('\n');
+			out.write("last".getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+
+		if (markable) {
+			return new MarkableFileInputStream(new FileInputStream(file));
+		}
+
+		return new FileInputStream(file);
+	}
+
+	static void checkSkip(TestCase test, String prefix,
+			NextableInputStream in, long size) throws Exception {
+		long skipped = 0;
+		while (skipped < size) {
+			long n = in.skip(size - skipped);
+			if (n <= 0) {
+				break;
+			}
+			skipped += n;
+		}
+
+		test.assertEquals("Cannot skip the whole " + prefix + " item", size,
+				skipped);
+	}
+
+	static byte[] getLine(byte[] filler, int size) {
+		byte[] line = new byte[size];
+		for (int i = 0; i < size; i++) {
+			line[i] = filler[(size + i) % filler.length];
+		}
+
+		return line;
 	}
 
 	static void checkNext(TestCase test, String prefix, NextableInputStream in,
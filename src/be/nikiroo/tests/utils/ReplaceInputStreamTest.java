@@ -182,8 +182,102 @@ class ReplaceInputStreamTest extends TestLauncher {
 				, result);
 			}
 		});
-		
-		
+
+		addTest(new TestCase("Many replaces") {
+			@Override
+			public void test() throws Exception {
+				String[] froms = getManyKeys(1000);
+				String[] tos = getManyValues(froms.length);
+
+				String str = getManyKeysTemplate(froms);
+				byte[] data = str.getBytes("UTF-8");
+
+				InputStream in = new ReplaceInputStream(
+						new ByteArrayInputStream(data), froms, tos);
+
+				String result = new String(IOUtils.toByteArray(in), "UTF-8");
+				assertEquals(replaceAll(str, froms, tos), result);
+			}
+		});
+	}
+
+	/**
+	 * Some distinct keys, none of them a prefix of another one.
+	 * 
+	 * @param count
+	 *            the number of keys
+	 * 
+	 * @return the keys (<tt>${key0}</tt>, <tt>${key1}</tt>...)
+	 */
+	static String[] getManyKeys(int count) {
+		String[] keys = new String[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = "${key" + i + "}";
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Some values to replace the keys of
+	 * {@link ReplaceInputStreamTest#getManyKeys(int)} with (no value contains a
+	 * key).
+	 * 
+	 * @param count
+	 *            the number of values
+	 * 
+	 * @return the values
+	 */
+	static String[] getManyValues(int count) {
+		String[] values = new String[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = "value #" + i;
+		}
+
+		return values;
+	}
+
+	/**
+	 * Replace all the given keys by their values, one key after the other.
+	 * 
+	 * @param str
+	 *            the text to process
+	 * @param froms
+	 *            the keys
+	 * @param tos
+	 *            the values
+	 * 
+	 * @return the processed text
+	 */
+	static String replaceAll(String str, String[] froms, String[] tos) {
+		for (int i = 0; i < froms.length; i++) {
+			str = str.replace(froms[i], tos[i]);
+		}
+
+		return str;
+	}
+
+	/**
+	 * A text using some of the given keys (the first ones, the last ones,
+	 * some in the middle, some next to each other) as well as some partial
+	 * keys that must not be replaced.
+	 * 
+	 * @param keys
+	 *            the keys to use
+	 * 
+	 * @return the text
+	 */
+	static String getManyKeysTemplate(String[] keys) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < keys.length; i += 7) {
+			builder.append("Line ").append(i).append(": ").append(keys[i])
+					.append(" and ${key").append(i).append(" (partial)\n");
+		}
+
+		builder.append(keys[0]).append(keys[1]).append(keys[keys.length - 1]);
+		builder.append("$").append(keys[keys.length / 2]).append("}");
+
+		return builder.toString();
 	}
 
 	static void checkArrays(TestCase test, String prefix, InputStream in,
@@ -133,6 +133,32 @@ class ReplaceOutputStreamTest extends TestLauncher {
 				checkArrays(this, "FIRST", bout, new byte[] { 42, 0, 127 });
 			}
 		});
+
+		addTest(new TestCase("Multiple small writes, many replaces") {
+			@Override
+			public void test() throws Exception {
+				String[] froms = ReplaceInputStreamTest.getManyKeys(1000);
+				String[] tos = ReplaceInputStreamTest
+						.getManyValues(froms.length);
+
+				String str = ReplaceInputStreamTest.getManyKeysTemplate(froms);
+				byte[] data = str.getBytes("UTF-8");
+
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				ReplaceOutputStream out = new ReplaceOutputStream(bout, froms,
+						tos);
+
+				// 7-bytes writes, so some keys are split between 2 writes
+				for (int i = 0; i < data.length; i += 7) {
+					out.write(data, i, Math.min(7, data.length - i));
+				}
+				out.close();
+
+				String expected = ReplaceInputStreamTest.replaceAll(str, froms,
+						tos);
+				checkArrays(this, "FIRST", bout, expected.getBytes("UTF-8"));
+			}
+		});
 	}
 
 	static void checkArrays(TestCase test, String prefix,
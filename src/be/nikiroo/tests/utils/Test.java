@@ -43,12 +43,11 @@ public class Test extends TestLauncher {
 		addSeries(new BufferedOutputStreamTest(args));
 		addSeries(new ReplaceOutputStreamTest(args));
 
-		// TODO: test cache and downloader
-		Cache cache = null;
-		CacheMemory memcache = null;
-		Downloader downloader = null;
-		
+		// Cache and Downloader are tested in NetTest
 		// To include the sources:
+		Cache cache;
+		CacheMemory memcache;
+		Downloader downloader;
 		img2aa siu;
 		justify ssu;
 		bridge aa;
@@ -0,0 +1,224 @@
+package be.nikiroo.tests.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+import fi.iki.elonen.NanoHTTPD;
+
+/**
+ * A small local HTTP server that serves synthetic content, so the
+ * {@link be.nikiroo.utils.Downloader} and the {@link be.nikiroo.utils.Cache}
+ * can be tested without network access.
+ * <p>
+ * The following paths are served:
+ * <ul>
+ * <li><tt>/data/ID</tt>: some data (see
+ * {@link TestHttpServer#getData(String, int)}) generated from the given ID</li>
+ * <li><tt>/redirect/ID</tt>: a 302 redirect to <tt>/data/ID</tt></li>
+ * </ul>
+ * The following (optional) query parameters are supported:
+ * <ul>
+ * <li><tt>size</tt>: the size in bytes of the data (default is 1024)</li>
+ * <li><tt>latency</tt>: the number of milliseconds to wait before answering
+ * (default is 0)</li>
+ * <li><tt>etag</tt>: the ETag to send with the data (a request with an
+ * <tt>If-None-Match</tt> header of the same value will get a 304)</li>
+ * </ul>
+ *
+ * @author niki
+ */
+class TestHttpServer extends NanoHTTPD {
+	private int hits;
+	private int redirects;
+	private int notModified;
+
+	/**
+	 * Create and start a new server on a free local port.
+	 *
+	 * @throws IOException
+	 *             in case of I/O error when opening the socket
+	 */
+	public TestHttpServer() throws IOException {
+		super("127.0.0.1", 0);
+		start(SOCKET_READ_TIMEOUT, true);
+	}
+
+	/**
+	 * The {@link URL} of some data served by this server.
+	 *
+	 * @param id
+	 *            the ID of the data
+	 * @param size
+	 *            the size of the data in bytes
+	 * @param latency
+	 *            the delay before the server answers, in milliseconds
+	 *
+	 * @return the {@link URL}
+	 *
+	 * @throws IOException
+	 *             if the {@link URL} is malformed
+	 */
+	public URL getUrl(String id, int size, int latency) throws IOException {
+		return getUrl("/data/" + id + "?size=" + size + "&latency=" + latency);
+	}
+
+	/**
+	 * The {@link URL} of the given path and query on this server.
+	 *
+	 * @param pathAndQuery
+	 *            the path and (optional) query, starting with a '/'
+	 *
+	 * @return the {@link URL}
+	 *
+	 * @throws IOException
+	 *             if the {@link URL} is malformed
+	 */
+	public URL getUrl(String pathAndQuery) throws IOException {
+		return new URL("http://127.0.0.1:" + getListeningPort() + pathAndQuery);
+	}
+
+	/**
+	 * The number of data requests answered with the actual data.
+	 *
+	 * @return the number of hits
+	 */
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	/**
+	 * The number of redirect requests answered.
+	 *
+	 * @return the number of redirects
+	 */
+	public synchronized int getRedirects() {
+		return redirects;
+	}
+
+	/**
+	 * The number of data requests answered with a 304 (not modified).
+	 *
+	 * @return the number of 304 answers
+	 */
+	public synchronized int getNotModified() {
+		return notModified;
+	}
+
+	@Override
+	public Response serve(IHTTPSession session) {
+		String uri = session.getUri();
+		Map<String, List<String>> params = session.getParameters();
+
+		int size = getInt(params, "size", 1024);
+		int latency = getInt(params, "latency", 0);
+		String etag = getString(params, "etag", null);
+
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+			}
+		}
+
+		if (uri.startsWith("/redirect/")) {
+			synchronized (this) {
+				redirects++;
+			}
+
+			String target = "/data/" + uri.substring("/redirect/".length());
+			String query = session.getQueryParameterString();
+			if (query != null && !query.isEmpty()) {
+				target += "?" + query;
+			}
+
+			// Absolute URL: the Downloader handles redirects by itself
+			String location;
+			try {
+				location = getUrl(target).toString();
+			} catch (IOException e) {
+				return newFixedLengthResponse(Response.Status.INTERNAL_ERROR,
+						MIME_PLAINTEXT, e.getMessage());
+			}
+
+			@SuppressWarnings("deprecation")
+			Response rep = newFixedLengthResponse(Response.Status.FOUND,
+					MIME_PLAINTEXT, "");
+			rep.addHeader("Location", location);
+			return rep;
+		}
+
+		if (uri.startsWith("/data/")) {
+			String id = uri.substring("/data/".length());
+
+			if (etag != null
+					&& etag.equals(session.getHeaders().get("if-none-match"))) {
+				synchronized (this) {
+					notModified++;
+				}
+
+				Response rep = newFixedLengthResponse(
+						Response.Status.NOT_MODIFIED, MIME_PLAINTEXT, "");
+				rep.addHeader("ETag", etag);
+				return rep;
+			}
+
+			synchronized (this) {
+				hits++;
+			}
+
+			byte[] data = getData(id, size);
+			Response rep = newFixedLengthResponse(Response.Status.OK,
+					"application/octet-stream", new ByteArrayInputStream(data),
+					data.length);
+			if (etag != null) {
+				rep.addHeader("ETag", etag);
+			}
+
+			return rep;
+		}
+
+		return newFixedLengthResponse(Response.Status.NOT_FOUND,
+				MIME_PLAINTEXT, "Not found: " + uri);
+	}
+
+	/**
+	 * The data served for the given ID and size.
+	 *
+	 * @param id
+	 *            the ID of the data
+	 * @param size
+	 *            the size of the data in bytes
+	 *
+	 * @return the data, always the same for the same ID and size
+	 */
+	static public byte[] getData(String id, int size) {
+		return BufferedInputStreamTest.getData(id.hashCode(), size);
+	}
+
+	static private String getString(Map<String, List<String>> params,
+			String name, String def) {
+		List<String> values = params.get(name);
+		if (values == null || values.isEmpty()) {
+			return def;
+		}
+
+		return values.get(0);
+	}
+
+	static private int getInt(Map<String, List<String>> params, String name,
+			int def) {
+		String value = getString(params, name, null);
+		if (value == null) {
+			return def;
+		}
+
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return def;
+		}
+	}
+}